@@ -0,0 +1,92 @@
+#!/usr/bin/env bash
+# Compara el tiempo de arranque del servicio en distintos modos:
+#   baseline    jar de la versión base (BASELINE_REF), perfil por defecto
+#   current     jar actual, perfil por defecto
+#   fast-start  jar actual, perfil fast-start (lazy init)
+#   aot         jar construido con -Paot, perfil fast-start, -Dspring.aot.enabled=true
+#   aot+cds     lo anterior más un archivo CDS generado con una ejecución de entrenamiento
+#
+# Mide el "process running for" que Spring Boot registra al terminar de arrancar, que incluye
+# el arranque de la JVM. No necesita AD: la precarga de caché corre en segundo plano.
+#
+# Variables:
+#   RUNS          ejecuciones por modo (por defecto 5)
+#   BASELINE_REF  commit a usar como baseline, normalmente el anterior a los cambios medidos (obligatorio
+#                 salvo que se indique BASELINE_JAR)
+#   BASELINE_JAR  jar ya construido para usar como baseline; evita compilar BASELINE_REF
+#
+# Los resultados quedan además en target/startup-benchmark/results.txt.
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+# El jar actual no arranca sin las IP del balanceador; en local basta con loopback
+export APP_RATELIMIT_TRUSTEDPROXIES="${APP_RATELIMIT_TRUSTEDPROXIES:-127\.0\.0\.1}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$ROOT/target/startup-benchmark"
+JAR_NAME=ldap-ad-connection-0.0.1.jar
+
+cd "$ROOT"
+rm -rf "$WORK"
+git worktree prune
+mkdir -p "$WORK"
+
+measure() {
+    local label=$1
+    shift
+    local total=0
+    local times=()
+    for ((i = 1; i <= RUNS; i++)); do
+        local log="$WORK/$label-$i.log"
+        "$@" --server.port=0 > "$log" 2>&1 &
+        local pid=$!
+        local seconds=""
+        for ((t = 0; t < 600; t++)); do
+            seconds=$(sed -n 's/.*Started .* (process running for \([0-9.]*\)).*/\1/p' "$log" | head -n 1)
+            [[ -n "$seconds" ]] && break
+            kill -0 "$pid" 2> /dev/null || break
+            sleep 0.1
+        done
+        kill "$pid" 2> /dev/null || true
+        wait "$pid" 2> /dev/null || true
+        if [[ -z "$seconds" ]]; then
+            echo "$label: no arrancó, ver $log" >&2
+            return 1
+        fi
+        times+=("$seconds")
+        total=$(awk -v a="$total" -v b="$seconds" 'BEGIN { print a + b }')
+    done
+    printf '%-12s promedio %6.3f s  (%s)\n' "$label" "$(awk -v t="$total" -v n="$RUNS" 'BEGIN { print t / n }')" "${times[*]}"
+}
+
+if [[ -z "${BASELINE_JAR:-}" ]]; then
+    : "${BASELINE_REF:?indicar BASELINE_REF (commit anterior a los cambios a medir) o BASELINE_JAR}"
+    git worktree add --detach "$WORK/baseline-src" "$BASELINE_REF" > /dev/null
+    trap 'git -C "$ROOT" worktree remove --force "$WORK/baseline-src"' EXIT
+    # Las revisiones con imports javax.validation no compilan con Boot 3; solo se corrigen esos imports
+    grep -rl 'import javax\.validation\.' "$WORK/baseline-src/src/main/java" \
+        | xargs -r sed -i 's/import javax\.validation\./import jakarta.validation./'
+    (cd "$WORK/baseline-src" && sh ./mvnw -B -q -DskipTests package)
+    BASELINE_JAR="$WORK/baseline.jar"
+    cp "$WORK/baseline-src/target/$JAR_NAME" "$BASELINE_JAR"
+fi
+
+sh ./mvnw -B -q -DskipTests package
+cp "target/$JAR_NAME" "$WORK/app.jar"
+
+sh ./mvnw -B -q -DskipTests -Paot package
+cp "target/$JAR_NAME" "$WORK/app-aot.jar"
+
+# CDS necesita el jar extraído para que el classpath sea estable entre entrenamiento y ejecución
+java -Djarmode=tools -jar "$WORK/app-aot.jar" extract --destination "$WORK/cds"
+java -XX:ArchiveClassesAtExit="$WORK/cds/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar "$WORK/cds/app-aot.jar" --spring.profiles.active=fast-start > "$WORK/cds-training.log" 2>&1
+
+{
+    echo "Arranque promedio de $RUNS ejecuciones ($(java -version 2>&1 | head -n 1)):"
+    measure baseline java -jar "$BASELINE_JAR"
+    measure current java -jar "$WORK/app.jar"
+    measure fast-start java -jar "$WORK/app.jar" --spring.profiles.active=fast-start
+    measure aot java -Dspring.aot.enabled=true -jar "$WORK/app-aot.jar" --spring.profiles.active=fast-start
+    measure aot+cds java -XX:SharedArchiveFile="$WORK/cds/app.jsa" -Dspring.aot.enabled=true \
+        -jar "$WORK/cds/app-aot.jar" --spring.profiles.active=fast-start
+} | tee "$WORK/results.txt"
@@ -2,8 +2,12 @@ package com.example.ldap_ad_connection;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.ldap.LdapAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// Las conexiones LDAP son los pools por dominio de LdapDomainRegistry; la auto-configuración LDAP solo agrega trabajo al arranque
+@SpringBootApplication(exclude = LdapAutoConfiguration.class)
+@EnableScheduling
 public class LdapAdConnectionApplication {
 
 	public static void main(String[] args) {
@@ -3,14 +3,9 @@ package com.example.ldap_ad_connection.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.ldap.core.LdapTemplate;
-import org.springframework.ldap.core.support.LdapContextSource;
 
-import javax.naming.Context;
-import javax.naming.NamingException;
-import javax.naming.directory.DirContext;
-import javax.naming.directory.InitialDirContext;
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class LdapConfig {
@@ -30,69 +25,44 @@ public class LdapConfig {
     @Value("${app.ldap.connection-timeout}")
     private int connectionTimeout;
 
-    public String getLdapUrl() {
-        return ldapUrl;
-    }
+    @Value("${app.ldap.read-timeout:30000}")
+    private int readTimeout;
 
-    @Bean
-    public LdapContextSource contextSource() {
-        LdapContextSource contextSource = new LdapContextSource();
-        contextSource.setUrl(ldapUrl);
-        contextSource.setBase(ldapBase);
-        contextSource.setUserDn(ldapUsername);
-        contextSource.setPassword(ldapPassword);
-        contextSource.setPooled(true);
-        contextSource.setReferral("follow");
-        
-        // Configuración adicional para entorno corporativo
-//        Hashtable<String, Object> baseEnvironment = new Hashtable<>();
-//        baseEnvironment.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(connectionTimeout));
-//        baseEnvironment.put("com.sun.jndi.ldap.read.timeout", "30000");
-//        contextSource.setBaseEnvironment(baseEnvironment);
-        
-        return contextSource;
-    }
+    @Value("${app.ldap.domain}")
+    private String domain;
 
-    @Bean
-    public LdapTemplate ldapTemplate() {
-        LdapTemplate ldapTemplate = new LdapTemplate(contextSource());
-        ldapTemplate.setIgnorePartialResultException(true);
-        ldapTemplate.setIgnoreNameNotFoundException(true);
-        return ldapTemplate;
-    }
+    @Value("${app.ldap.user-search-base}")
+    private String userSearchBase;
 
-    public DirContext getNativeLdapConnection() throws NamingException {
-        Hashtable<String, String> env = new Hashtable<>();
-        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
-        env.put(Context.PROVIDER_URL, ldapUrl);
-        env.put(Context.SECURITY_AUTHENTICATION, "simple");
-        env.put(Context.SECURITY_PRINCIPAL, ldapUsername);
-        env.put(Context.SECURITY_CREDENTIALS, ldapPassword);
-        env.put(Context.REFERRAL, "follow");
-        env.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(connectionTimeout));
-        env.put("com.sun.jndi.ldap.read.timeout", "30000");
-        
-        return new InitialDirContext(env);
-    }
+    @Value("${app.ldap.group-search-base}")
+    private String groupSearchBase;
+
+    @Value("${app.ldap.required-group}")
+    private String requiredGroup;
 
-    public DirContext getNativeLdapConnection(String username, String password) throws NamingException {
-        Hashtable<String, String> env = new Hashtable<>();
-        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
-        env.put(Context.PROVIDER_URL, ldapUrl);
-        env.put(Context.SECURITY_AUTHENTICATION, "simple");
-        env.put(Context.SECURITY_PRINCIPAL, formatUserPrincipal(username));
-        env.put(Context.SECURITY_CREDENTIALS, password);
-        env.put(Context.REFERRAL, "follow");
-        env.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(connectionTimeout));
-        env.put("com.sun.jndi.ldap.read.timeout", "30000");
-        
-        return new InitialDirContext(env);
+    public String getLdapUrl() {
+        return ldapUrl;
     }
 
-    private String formatUserPrincipal(String username) {
-        if (username.contains("@")) {
-            return username;
-        }
-        return username + "@alemana.cl";
+    @Bean
+    public LdapDomainRegistry ldapDomainRegistry(LdapDomainProperties properties) {
+        // El dominio principal se arma con la configuración existente y va siempre primero
+        LdapDomainProperties.Domain primary = new LdapDomainProperties.Domain();
+        primary.setName(domain);
+        primary.setUrls(ldapUrl);
+        primary.setBase(ldapBase);
+        primary.setUsername(ldapUsername);
+        primary.setPassword(ldapPassword);
+        primary.setUserSearchBase(userSearchBase);
+        primary.setGroupSearchBase(groupSearchBase);
+        primary.setRequiredGroup(requiredGroup);
+        primary.setConnectionTimeout(connectionTimeout);
+        primary.setReadTimeout(readTimeout);
+        primary.setPool(properties.getPool());
+
+        List<LdapDomainProperties.Domain> domains = new ArrayList<>();
+        domains.add(primary);
+        domains.addAll(properties.getDomains());
+        return new LdapDomainRegistry(domains);
     }
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.example.ldap_ad_connection.config;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+
+import javax.naming.AuthenticationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recursos de conexión de un dominio AD: pool propio para la cuenta de servicio y un
+ * límite propio de binds de usuario, de modo que un bosque lento no agota al otro.
+ */
+public class LdapDomain {
+
+    private final LdapDomainProperties.Domain settings;
+    private final List<String> upnSuffixes;
+    private final String base;
+    private final PooledContextSource contextSource;
+    private final LdapTemplate ldapTemplate;
+    private final Semaphore binds;
+
+    LdapDomain(LdapDomainProperties.Domain settings) {
+        // Sin estos valores el dominio fallaría recién en la primera solicitud; mejor no arrancar
+        require(settings.getName(), "name", settings);
+        require(settings.getUrls(), "urls", settings);
+        require(settings.getUsername(), "username", settings);
+        require(settings.getUserSearchBase(), "user-search-base", settings);
+        require(settings.getRequiredGroup(), "required-group", settings);
+
+        this.settings = settings;
+        this.upnSuffixes = settings.getUpnSuffixes().isEmpty()
+                ? List.of(settings.getName())
+                : List.copyOf(settings.getUpnSuffixes());
+        this.base = settings.getBase() != null
+                ? settings.getBase()
+                : "DC=" + String.join(",DC=", settings.getName().split("\\."));
+
+        LdapContextSource target = new LdapContextSource();
+        target.setUrl(settings.getUrls());
+        target.setUserDn(settings.getUsername());
+        target.setPassword(settings.getPassword());
+        target.setReferral("follow");
+        target.setPooled(false);
+        target.setBaseEnvironmentProperties(Map.<String, Object>of(
+                "com.sun.jndi.ldap.connect.timeout", String.valueOf(settings.getConnectionTimeout()),
+                "com.sun.jndi.ldap.read.timeout", String.valueOf(settings.getReadTimeout())));
+        target.afterPropertiesSet();
+
+        PoolConfig poolConfig = new PoolConfig();
+        poolConfig.setMaxTotalPerKey(settings.getPool().getMaxActive());
+        poolConfig.setMaxIdlePerKey(settings.getPool().getMaxActive());
+        poolConfig.setMaxWaitMillis(settings.getPool().getMaxWaitMs());
+        // Validar al pedir prestado sumaría una búsqueda por operación; se validan las conexiones ociosas
+        poolConfig.setTestOnBorrow(false);
+        poolConfig.setTestWhileIdle(true);
+        poolConfig.setTimeBetweenEvictionRunsMillis(settings.getPool().getEvictionIntervalMs());
+        poolConfig.setMinEvictableIdleTimeMillis(settings.getPool().getMinEvictableIdleMs());
+
+        this.contextSource = new PooledContextSource(poolConfig);
+        this.contextSource.setContextSource(target);
+        this.contextSource.setDirContextValidator(new DefaultDirContextValidator());
+
+        this.ldapTemplate = new LdapTemplate(contextSource);
+        this.ldapTemplate.setIgnorePartialResultException(true);
+        this.ldapTemplate.setIgnoreNameNotFoundException(true);
+
+        this.binds = new Semaphore(settings.getPool().getMaxConcurrentBinds());
+    }
+
+    public String getName() { return settings.getName(); }
+
+    public String getBase() { return base; }
+
+    public String getUserSearchBase() { return settings.getUserSearchBase(); }
+
+    public String getGroupSearchBase() { return settings.getGroupSearchBase(); }
+
+    public String getRequiredGroup() { return settings.getRequiredGroup(); }
+
+    public List<String> getUpnSuffixes() { return upnSuffixes; }
+
+    public LdapTemplate getLdapTemplate() { return ldapTemplate; }
+
+    /**
+     * Conexión de la cuenta de servicio tomada del pool del dominio; close() la devuelve al pool.
+     */
+    public DirContext getSearchContext() throws NamingException {
+        try {
+            return contextSource.getReadOnlyContext();
+        } catch (DataAccessResourceFailureException e) {
+            // El pool informa DC inalcanzable, pool agotado o espera vencida como excepción runtime
+            ServiceUnavailableException unavailable = new ServiceUnavailableException(
+                    "Sin conexión disponible para dominio " + getName() + ": " + e.getMessage());
+            unavailable.setRootCause(e);
+            throw unavailable;
+        }
+    }
+
+    /**
+     * Valida credenciales de usuario con un bind directo, acotado por el límite de binds del dominio.
+     */
+    public void bind(String username, String password) throws NamingException {
+        // AD acepta un bind simple sin contraseña como anónimo; no debe contar como autenticado
+        if (password == null || password.isEmpty()) {
+            throw new AuthenticationException("Contraseña vacía");
+        }
+
+        boolean acquired;
+        try {
+            acquired = binds.tryAcquire(settings.getPool().getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Bind interrumpido para dominio " + getName());
+        }
+        if (!acquired) {
+            throw new ServiceUnavailableException("Límite de binds concurrentes alcanzado para dominio " + getName());
+        }
+
+        try {
+            Hashtable<String, String> env = new Hashtable<>();
+            env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+            env.put(Context.PROVIDER_URL, settings.getUrls());
+            env.put(Context.SECURITY_AUTHENTICATION, "simple");
+            env.put(Context.SECURITY_PRINCIPAL, formatUserPrincipal(username));
+            env.put(Context.SECURITY_CREDENTIALS, password);
+            env.put(Context.REFERRAL, "follow");
+            env.put("com.sun.jndi.ldap.connect.timeout", String.valueOf(settings.getConnectionTimeout()));
+            env.put("com.sun.jndi.ldap.read.timeout", String.valueOf(settings.getReadTimeout()));
+
+            new InitialDirContext(env).close();
+        } finally {
+            binds.release();
+        }
+    }
+
+    private static void require(String value, String property, LdapDomainProperties.Domain settings) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Falta app.ldap.domains[]." + property + " en dominio LDAP "
+                    + (settings.getName() != null ? settings.getName() : "sin nombre"));
+        }
+    }
+
+    private String formatUserPrincipal(String username) {
+        if (username.contains("@")) {
+            return username;
+        }
+        return username + "@" + upnSuffixes.get(0);
+    }
+
+    void destroy() throws Exception {
+        contextSource.destroy();
+    }
+}
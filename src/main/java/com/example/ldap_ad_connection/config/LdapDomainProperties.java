@@ -0,0 +1,50 @@
+package com.example.ldap_ad_connection.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dominios AD adicionales. El dominio principal sigue definiéndose con spring.ldap.* y
+ * app.ldap.*; aquí solo se declaran su pool y los bosques extra.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.ldap")
+public class LdapDomainProperties {
+
+    // Pool del dominio principal
+    private Pool pool = new Pool();
+
+    private List<Domain> domains = new ArrayList<>();
+
+    @Data
+    public static class Domain {
+        private String name;
+        private String urls;
+        // DN raíz del dominio; por defecto se deriva del nombre (otro-bosque.cl -> DC=otro-bosque,DC=cl)
+        private String base;
+        private String username;
+        private String password;
+        private String userSearchBase;
+        private String groupSearchBase;
+        private String requiredGroup;
+        // Sufijos UPN que se enrutan a este dominio; por defecto, el nombre del dominio
+        private List<String> upnSuffixes = new ArrayList<>();
+        private int connectionTimeout = 10000;
+        private int readTimeout = 30000;
+        private Pool pool = new Pool();
+    }
+
+    @Data
+    public static class Pool {
+        private int maxActive = 8;
+        private long maxWaitMs = 5000;
+        private int maxConcurrentBinds = 20;
+        private long evictionIntervalMs = 60000;
+        private long minEvictableIdleMs = 300000;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ldap_ad_connection.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.naming.AuthenticationException;
+import javax.naming.InvalidNameException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dominios configurados y enrutamiento de usuarios y DN hacia ellos.
+ */
+@Slf4j
+public class LdapDomainRegistry implements DisposableBean {
+
+    private final LdapDomain defaultDomain;
+    private final Map<String, LdapDomain> byName = new LinkedHashMap<>();
+    private final Map<String, LdapDomain> bySuffix = new LinkedHashMap<>();
+
+    public LdapDomainRegistry(List<LdapDomainProperties.Domain> domains) {
+        for (LdapDomainProperties.Domain settings : domains) {
+            LdapDomain domain = new LdapDomain(settings);
+            if (byName.putIfAbsent(key(domain.getName()), domain) != null) {
+                throw new IllegalStateException("Dominio LDAP duplicado: " + domain.getName());
+            }
+            for (String suffix : domain.getUpnSuffixes()) {
+                LdapDomain previous = bySuffix.putIfAbsent(key(suffix), domain);
+                if (previous != null) {
+                    throw new IllegalStateException("Sufijo UPN " + suffix + " asignado a "
+                            + previous.getName() + " y " + domain.getName());
+                }
+            }
+            log.info("Dominio LDAP registrado: {} (sufijos {})", domain.getName(), domain.getUpnSuffixes());
+        }
+        this.defaultDomain = byName.values().iterator().next();
+    }
+
+    public LdapDomain getDefault() {
+        return defaultDomain;
+    }
+
+    public Collection<LdapDomain> getAll() {
+        return byName.values();
+    }
+
+    /**
+     * Dominio de un usuario según el sufijo de su UPN; los nombres sin sufijo van al dominio principal.
+     * Un sufijo no configurado se rechaza: enviarlo a otro bosque validaría credenciales en el directorio equivocado.
+     */
+    public LdapDomain forUser(String username) throws AuthenticationException {
+        int at = username.lastIndexOf('@');
+        if (at < 0) {
+            return defaultDomain;
+        }
+        LdapDomain domain = bySuffix.get(key(username.substring(at + 1)));
+        if (domain == null) {
+            throw new AuthenticationException("Dominio no configurado: " + username.substring(at + 1));
+        }
+        return domain;
+    }
+
+    /**
+     * Dominio cuya base contiene al DN; si varias calzan, la más específica.
+     */
+    public LdapDomain forDn(String dn) throws InvalidNameException {
+        String normalized = normalizeDn(dn);
+        LdapDomain match = null;
+        int matchLength = -1;
+        for (LdapDomain domain : byName.values()) {
+            String base = normalizeDn(domain.getBase());
+            boolean contains = normalized.equals(base) || normalized.endsWith("," + base);
+            if (contains && base.length() > matchLength) {
+                match = domain;
+                matchLength = base.length();
+            }
+        }
+        if (match == null) {
+            throw new InvalidNameException("DN fuera de los dominios configurados: " + dn);
+        }
+        return match;
+    }
+
+    private static String normalizeDn(String dn) {
+        StringBuilder sb = new StringBuilder(dn.length());
+        for (String rdn : dn.split(",")) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(rdn.trim());
+        }
+        return key(sb.toString());
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (LdapDomain domain : byName.values()) {
+            domain.destroy();
+        }
+    }
+}
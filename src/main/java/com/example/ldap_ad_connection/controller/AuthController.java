@@ -1,17 +1,21 @@
 package com.example.ldap_ad_connection.controller;
 
+import com.example.ldap_ad_connection.config.LdapDomain;
 import com.example.ldap_ad_connection.dto.AuthRequest;
 import com.example.ldap_ad_connection.model.ADUser;
+import com.example.ldap_ad_connection.ratelimit.AuthRateLimiter;
 import com.example.ldap_ad_connection.service.NativeLdapService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.naming.NamingException;
-import javax.validation.Valid;
+import jakarta.validation.Valid;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -21,75 +25,108 @@ public class AuthController {
     @Autowired
     private NativeLdapService ldapService;
     
-    @Value("${app.ldap.required-group}")
-    private String requiredGroup;
+    @Autowired
+    private AuthRateLimiter rateLimiter;
     
     @PostMapping("/authenticate")
-    public ResponseEntity<AuthResponse> authenticateUser(@Valid @RequestBody AuthRequest authRequest) {
+    public ResponseEntity<AuthResponse> authenticateUser(@Valid @RequestBody AuthRequest authRequest,
+                                                         HttpServletRequest request) {
         log.info("Solicitud de autenticación para usuario: {}", authRequest.getUsername());
         
-        NativeLdapService.AuthResult authResult = ldapService.authenticateUserWithDetails(
-            authRequest.getUsername(), 
-            authRequest.getPassword()
-        );
-        
-        AuthResponse response = new AuthResponse();
-        response.setAuthenticated(authResult.isAuthenticated());
-        response.setUsername(authResult.getUsername());
-        response.setUser(authResult.getUser());
-        response.setHasRequiredGroup(authResult.isHasRequiredGroup());
-        response.setAccountEnabled(authResult.isAccountEnabled());
-        response.setAccountLocked(authResult.isAccountLocked());
-        response.setUserGroups(authResult.getUserGroups());
-        response.setMessage(authResult.getMessage());
-        
-        if (authResult.isAuthenticated() && authResult.isHasRequiredGroup()) {
-            return ResponseEntity.ok(response);
-        } else if (authResult.isAuthenticated() && !authResult.isHasRequiredGroup()) {
-            return ResponseEntity.status(403).body(response);
-        } else {
-            return ResponseEntity.status(401).body(response);
+        try (AuthRateLimiter.Admission admission = rateLimiter.acquire(
+                "authenticate", request.getRemoteAddr(), authRequest.getUsername())) {
+            if (!admission.isAllowed()) {
+                return tooManyRequests(authRequest.getUsername(), admission);
+            }
+            
+            NativeLdapService.AuthResult authResult = ldapService.authenticateUserWithDetails(
+                authRequest.getUsername(), 
+                authRequest.getPassword()
+            );
+            
+            AuthResponse response = new AuthResponse();
+            response.setAuthenticated(authResult.isAuthenticated());
+            response.setUsername(authResult.getUsername());
+            response.setUser(authResult.getUser());
+            response.setHasRequiredGroup(authResult.isHasRequiredGroup());
+            response.setAccountEnabled(authResult.isAccountEnabled());
+            response.setAccountLocked(authResult.isAccountLocked());
+            response.setUserGroups(authResult.getUserGroups());
+            response.setMessage(authResult.getMessage());
+            
+            if (authResult.isAuthenticated() && authResult.isHasRequiredGroup()) {
+                return ResponseEntity.ok(response);
+            } else if (authResult.isAuthenticated() && !authResult.isHasRequiredGroup()) {
+                return ResponseEntity.status(403).body(response);
+            } else {
+                return ResponseEntity.status(401).body(response);
+            }
         }
     }
     
     @PostMapping("/honorarios")
     public ResponseEntity<AuthResponse> authenticateHonorariosUser(
             @RequestParam String username,
-            @RequestParam String password) {
+            @RequestParam String password,
+            HttpServletRequest request) {
         
         log.info("Autenticación específica para grupo Honorarios - Usuario: {}", username);
         
-        NativeLdapService.AuthResult authResult = ldapService.authenticateUserWithDetails(username, password);
-        
-        AuthResponse response = new AuthResponse();
-        response.setAuthenticated(authResult.isAuthenticated());
-        response.setUsername(authResult.getUsername());
-        response.setHasRequiredGroup(authResult.isHasRequiredGroup());
-        response.setAccountEnabled(authResult.isAccountEnabled());
-        response.setAccountLocked(authResult.isAccountLocked());
-        response.setMessage(authResult.getMessage());
-        
-        if (authResult.isAuthenticated() && authResult.isHasRequiredGroup()) {
-            response.setMessage("Autenticación exitosa para sistema de honorarios");
-            return ResponseEntity.ok(response);
-        } else if (authResult.isAuthenticated() && !authResult.isHasRequiredGroup()) {
-            response.setMessage("Usuario autenticado pero no tiene acceso al sistema de honorarios");
-            return ResponseEntity.status(403).body(response);
-        } else {
-            response.setMessage("Credenciales inválidas para sistema de honorarios");
-            return ResponseEntity.status(401).body(response);
+        try (AuthRateLimiter.Admission admission = rateLimiter.acquire(
+                "honorarios", request.getRemoteAddr(), username)) {
+            if (!admission.isAllowed()) {
+                return tooManyRequests(username, admission);
+            }
+            
+            NativeLdapService.AuthResult authResult = ldapService.authenticateUserWithDetails(username, password);
+            
+            AuthResponse response = new AuthResponse();
+            response.setAuthenticated(authResult.isAuthenticated());
+            response.setUsername(authResult.getUsername());
+            response.setHasRequiredGroup(authResult.isHasRequiredGroup());
+            response.setAccountEnabled(authResult.isAccountEnabled());
+            response.setAccountLocked(authResult.isAccountLocked());
+            response.setMessage(authResult.getMessage());
+            
+            if (authResult.isAuthenticated() && authResult.isHasRequiredGroup()) {
+                response.setMessage("Autenticación exitosa para sistema de honorarios");
+                return ResponseEntity.ok(response);
+            } else if (authResult.isAuthenticated() && !authResult.isHasRequiredGroup()) {
+                response.setMessage("Usuario autenticado pero no tiene acceso al sistema de honorarios");
+                return ResponseEntity.status(403).body(response);
+            } else {
+                response.setMessage("Credenciales inválidas para sistema de honorarios");
+                return ResponseEntity.status(401).body(response);
+            }
         }
     }
     
+    private ResponseEntity<AuthResponse> tooManyRequests(String username, AuthRateLimiter.Admission admission) {
+        AuthResponse response = new AuthResponse();
+        response.setUsername(username);
+        response.setMessage("Demasiadas solicitudes, intente nuevamente en " + admission.getRetryAfterSeconds() + " segundos");
+        return ResponseEntity.status(429)
+            .header("Retry-After", String.valueOf(admission.getRetryAfterSeconds()))
+            .body(response);
+    }
+    
     @GetMapping("/group/users")
     public ResponseEntity<List<ADUser>> getUsersInHonorariosGroup() {
-        try {
-            List<ADUser> users = ldapService.findUsersInGroup(requiredGroup);
-            return ResponseEntity.ok(users);
-        } catch (NamingException e) {
-            log.error("Error obteniendo usuarios del grupo: {}", e.getMessage());
+        // Miembros del grupo requerido de cada dominio; un dominio caído no oculta a los demás
+        List<ADUser> users = new ArrayList<>();
+        int failures = 0;
+        for (LdapDomain domain : ldapService.getDomains()) {
+            try {
+                users.addAll(ldapService.findUsersInGroup(domain.getRequiredGroup()));
+            } catch (NamingException e) {
+                log.error("Error obteniendo usuarios del grupo en dominio {}: {}", domain.getName(), e.getMessage());
+                failures++;
+            }
+        }
+        if (failures == ldapService.getDomains().size()) {
             return ResponseEntity.internalServerError().build();
         }
+        return ResponseEntity.ok(users);
     }
     
     @GetMapping("/health")
@@ -104,8 +141,12 @@ public class AuthController {
             HealthResponse response = new HealthResponse();
             response.setStatus("UP");
             response.setMessage("LDAP Service is running - Connection test completed");
-            response.setDomain("alemana.cl");
-            response.setRequiredGroup(requiredGroup);
+            response.setDomain(ldapService.getDomains().stream()
+                .map(LdapDomain::getName)
+                .collect(Collectors.joining(", ")));
+            response.setRequiredGroup(ldapService.getDomains().stream()
+                .map(LdapDomain::getRequiredGroup)
+                .collect(Collectors.joining("; ")));
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
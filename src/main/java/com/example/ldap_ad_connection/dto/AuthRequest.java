@@ -1,7 +1,7 @@
 package com.example.ldap_ad_connection.dto;
 
 import lombok.Data;
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotBlank;
 
 @Data
 public class AuthRequest {
@@ -0,0 +1,155 @@
+package com.example.ldap_ad_connection.ldap;
+
+import javax.naming.directory.InvalidSearchFilterException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plantilla de filtro LDAP precompilada.
+ *
+ * El patrón se analiza una sola vez al crear la plantilla; los marcadores {0}, {1}, ...
+ * se reemplazan en cada búsqueda por valores escapados según RFC 4515, escribiendo
+ * sobre un buffer reutilizado por hilo. Los valores nunca pueden aportar comodines ni
+ * paréntesis al filtro final.
+ *
+ * Un marcador rodeado de '*' en el patrón (p.ej. "(cn=*{0}*)") es una búsqueda por
+ * subcadena: se exige un largo mínimo para evitar barridos de todo el directorio.
+ */
+public final class LdapFilterTemplate {
+
+    private static final int MAX_RETAINED_BUFFER = 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String pattern;
+    private final String[] literals;
+    private final int[] slots;
+    private final boolean[] substringSlots;
+    private final int literalLength;
+    private final int maxValueLength;
+    private final int minSubstringLength;
+
+    private LdapFilterTemplate(String pattern, String[] literals, int[] slots, boolean[] substringSlots,
+                               int maxValueLength, int minSubstringLength) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.slots = slots;
+        this.substringSlots = substringSlots;
+        this.maxValueLength = maxValueLength;
+        this.minSubstringLength = minSubstringLength;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static LdapFilterTemplate compile(String pattern, int maxValueLength, int minSubstringLength) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> substring = new ArrayList<>();
+
+        int start = 0;
+        int open;
+        while ((open = pattern.indexOf('{', start)) >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Marcador sin cerrar en filtro: " + pattern);
+            }
+            int index;
+            try {
+                index = Integer.parseInt(pattern.substring(open + 1, close));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Marcador inválido en filtro: " + pattern, e);
+            }
+            literals.add(pattern.substring(start, open));
+            slots.add(index);
+            substring.add((open > 0 && pattern.charAt(open - 1) == '*')
+                    || (close + 1 < pattern.length() && pattern.charAt(close + 1) == '*'));
+            start = close + 1;
+        }
+        literals.add(pattern.substring(start));
+
+        int[] slotArray = new int[slots.size()];
+        boolean[] substringArray = new boolean[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+            substringArray[i] = substring.get(i);
+        }
+
+        return new LdapFilterTemplate(pattern, literals.toArray(new String[0]), slotArray, substringArray,
+                maxValueLength, minSubstringLength);
+    }
+
+    public String format(String... values) throws InvalidSearchFilterException {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= values.length || values[slots[i]] == null) {
+                throw new InvalidSearchFilterException("Falta valor para el marcador {" + slots[i] + "}");
+            }
+            validate(values[slots[i]], substringSlots[i]);
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        sb.ensureCapacity(literalLength + 32);
+
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            escape(values[slots[i]], sb);
+        }
+        sb.append(literals[slots.length]);
+
+        String filter = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return filter;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    private void validate(String value, boolean substring) throws InvalidSearchFilterException {
+        if (value.length() > maxValueLength) {
+            throw new InvalidSearchFilterException("Valor de búsqueda excede el largo máximo de " + maxValueLength);
+        }
+        if (value.indexOf('*') >= 0) {
+            throw new InvalidSearchFilterException("No se permiten comodines en el valor de búsqueda");
+        }
+        if (substring && value.trim().length() < minSubstringLength) {
+            throw new InvalidSearchFilterException(
+                    "El término de búsqueda debe tener al menos " + minSubstringLength + " caracteres");
+        }
+    }
+
+    /**
+     * Escapa un valor de aserción según RFC 4515 sección 3.
+     */
+    static void escape(String value, StringBuilder sb) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '*':
+                    sb.append("\\2a");
+                    break;
+                case '(':
+                    sb.append("\\28");
+                    break;
+                case ')':
+                    sb.append("\\29");
+                    break;
+                case '\\':
+                    sb.append("\\5c");
+                    break;
+                case '\0':
+                    sb.append("\\00");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+}
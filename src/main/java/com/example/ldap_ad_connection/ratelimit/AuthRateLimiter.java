@@ -0,0 +1,144 @@
+package com.example.ldap_ad_connection.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Control de admisión para los endpoints de autenticación.
+ *
+ * Cada solicitud debe pasar, en orden, el token bucket de la IP cliente, el del usuario
+ * y el límite de concurrencia del endpoint. Lo rechazado nunca llega a hacer bind contra AD.
+ */
+@Slf4j
+@Component
+public class AuthRateLimiter {
+
+    // Bajo ataque puede no haber buckets inactivos; sin esta pausa cada solicitud recorrería todo el mapa
+    private static final long PRUNE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, EndpointState> endpoints = new ConcurrentHashMap<>();
+
+    public Admission acquire(String endpoint, String clientIp, String username) {
+        if (!properties.isEnabled()) {
+            return Admission.UNLIMITED;
+        }
+
+        EndpointState state = endpoints.computeIfAbsent(endpoint, this::createState);
+        long now = System.nanoTime();
+
+        long wait = state.consume(state.ipBuckets, clientIp, state.limits.getIpCapacity(),
+                state.limits.getIpPerMinute(), now);
+        if (wait > 0) {
+            return state.reject(state.ipRejected, wait, "ip", endpoint, clientIp);
+        }
+
+        if (username != null && !username.isBlank()) {
+            wait = state.consume(state.userBuckets, username.trim().toLowerCase(Locale.ROOT),
+                    state.limits.getUserCapacity(), state.limits.getUserPerMinute(), now);
+            if (wait > 0) {
+                return state.reject(state.userRejected, wait, "usuario", endpoint, username);
+            }
+        }
+
+        if (!state.inFlight.tryAcquire()) {
+            return state.reject(state.concurrencyRejected, TimeUnit.SECONDS.toNanos(1), "concurrencia", endpoint, clientIp);
+        }
+        return new Admission(true, 0, state.inFlight);
+    }
+
+    private EndpointState createState(String endpoint) {
+        RateLimitProperties.Limits limits = properties.forEndpoint(endpoint);
+        EndpointState state = new EndpointState(limits, properties.getMaxTrackedKeys());
+        state.ipRejected = rejectedCounter(endpoint, "ip");
+        state.userRejected = rejectedCounter(endpoint, "user");
+        state.concurrencyRejected = rejectedCounter(endpoint, "concurrency");
+        return state;
+    }
+
+    private Counter rejectedCounter(String endpoint, String reason) {
+        return Counter.builder("ldap.auth.rejected")
+                .description("Solicitudes de autenticación rechazadas por control de admisión")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class EndpointState {
+        private final RateLimitProperties.Limits limits;
+        private final int maxTrackedKeys;
+        private final Semaphore inFlight;
+        private final ConcurrentHashMap<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+        private final AtomicLong nextPrune = new AtomicLong(System.nanoTime());
+        private Counter ipRejected;
+        private Counter userRejected;
+        private Counter concurrencyRejected;
+
+        EndpointState(RateLimitProperties.Limits limits, int maxTrackedKeys) {
+            this.limits = limits;
+            this.maxTrackedKeys = maxTrackedKeys;
+            this.inFlight = new Semaphore(limits.getMaxConcurrent());
+        }
+
+        long consume(ConcurrentHashMap<String, TokenBucket> buckets, String key, int capacity, int perMinute, long now) {
+            if (buckets.size() > maxTrackedKeys) {
+                long scheduled = nextPrune.get();
+                if (now - scheduled >= 0 && nextPrune.compareAndSet(scheduled, now + PRUNE_INTERVAL_NANOS)) {
+                    ipBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+                    userBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+                }
+            }
+            TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, perMinute, now));
+            return bucket.tryConsume(now);
+        }
+
+        Admission reject(Counter counter, long waitNanos, String reason, String endpoint, String key) {
+            counter.increment();
+            // Un cliente en bucle generaría un log por intento; el volumen queda en la métrica ldap.auth.rejected
+            log.debug("Solicitud rechazada en {} por límite de {}: {}", endpoint, reason, key);
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            return new Admission(false, retryAfter, null);
+        }
+    }
+
+    public static final class Admission implements AutoCloseable {
+        static final Admission UNLIMITED = new Admission(true, 0, null);
+
+        private final boolean allowed;
+        private final long retryAfterSeconds;
+        private Semaphore permit;
+
+        Admission(boolean allowed, long retryAfterSeconds, Semaphore permit) {
+            this.allowed = allowed;
+            this.retryAfterSeconds = retryAfterSeconds;
+            this.permit = permit;
+        }
+
+        public boolean isAllowed() { return allowed; }
+
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+
+        @Override
+        public void close() {
+            if (permit != null) {
+                permit.release();
+                permit = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ldap_ad_connection.ratelimit;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@Validated
+@Lazy(false) // con spring.main.lazy-initialization la falta de trusted-proxies se notaría recién en la primera solicitud
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // IP del balanceador (regex de Tomcat internal-proxies); solo de ellas se acepta X-Forwarded-For
+    @NotBlank
+    private String trustedProxies;
+
+    // Máximo de claves (IP / usuario) en memoria por endpoint antes de purgar buckets inactivos
+    private int maxTrackedKeys = 50_000;
+
+    private Map<String, Limits> endpoints = new HashMap<>();
+
+    public Limits forEndpoint(String endpoint) {
+        return endpoints.getOrDefault(endpoint, Limits.DEFAULTS);
+    }
+
+    @Data
+    public static class Limits {
+        static final Limits DEFAULTS = new Limits();
+
+        private int ipCapacity = 20;
+        private int ipPerMinute = 60;
+        private int userCapacity = 5;
+        private int userPerMinute = 10;
+        private int maxConcurrent = 50;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ldap_ad_connection.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos.
+ *
+ * Implementado en su forma GCRA: en lugar de contar tokens se guarda en un único
+ * AtomicLong el instante teórico en que el bucket vuelve a estar lleno, y cada
+ * consumo se resuelve con un CAS.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(int capacity, int refillPerMinute, long nowNanos) {
+        this.intervalNanos = 60_000_000_000L / Math.max(1, refillPerMinute);
+        this.burstNanos = intervalNanos * Math.max(1, capacity);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @return 0 si se concedió, o los nanosegundos a esperar hasta el próximo token
+     */
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Un bucket inactivo está lleno y equivale a uno nuevo, por lo que puede descartarse.
+     */
+    public boolean isIdle(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
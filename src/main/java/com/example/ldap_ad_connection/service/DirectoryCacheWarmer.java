@@ -0,0 +1,111 @@
+package com.example.ldap_ad_connection.service;
+
+import com.example.ldap_ad_connection.config.LdapDomain;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precarga en caché los miembros del grupo requerido de cada dominio al iniciar y los refresca
+ * antes de que expiren. Forma parte del grupo de readiness: reporta OUT_OF_SERVICE hasta que
+ * la primera carga de todos los dominios termina o se cumple el plazo configurado.
+ */
+@Slf4j
+@Component
+@Lazy(false) // con spring.main.lazy-initialization no se registraría el @Scheduled
+public class DirectoryCacheWarmer implements HealthIndicator {
+
+    // Proxy diferido: el warmer es eager, pero el servicio, los pools y las cachés se crean recién en warmUp()
+    @Lazy
+    @Autowired
+    private NativeLdapService ldapService;
+
+    @Value("${app.ldap.cache.warmup-deadline-ms:30000}")
+    private long warmupDeadlineMs;
+
+    private final Set<String> warmedDomains = ConcurrentHashMap.newKeySet();
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private volatile long deadlineNanos;
+    private volatile boolean deadlineSet;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmupDeadlineMs);
+        deadlineSet = true;
+
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${app.ldap.cache.refresh-interval-ms:240000}",
+               fixedDelayString = "${app.ldap.cache.refresh-interval-ms:240000}")
+    public void refresh() {
+        // Un hilo por dominio: la precarga de un bosque lento no retrasa la de los demás
+        for (LdapDomain domain : ldapService.getDomains()) {
+            CompletableFuture<Void> previous = pending.get(domain.getName());
+            if (previous != null && !previous.isDone()) {
+                log.warn("Precarga del grupo requerido de {} aún en curso; se omite este ciclo", domain.getName());
+                continue;
+            }
+            pending.put(domain.getName(), CompletableFuture.runAsync(() -> preload(domain), executorFor(domain)));
+        }
+    }
+
+    Executor executorFor(LdapDomain domain) {
+        return executors.computeIfAbsent(domain.getName(), name -> Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ldap-cache-warmup-" + name);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (ExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void preload(LdapDomain domain) {
+        long start = System.nanoTime();
+        try {
+            int members = ldapService.preloadGroup(domain.getRequiredGroup());
+            warmedDomains.add(domain.getName());
+            log.info("Caché del grupo requerido de {} cargada: {} usuarios en {} ms", domain.getName(),
+                members, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("Error precargando caché del grupo requerido de {}: {}", domain.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (warmedDomains.size() == ldapService.getDomains().size()) {
+            return Health.up().withDetail("domains", warmedDomains).build();
+        }
+        if (deadlineSet && System.nanoTime() - deadlineNanos >= 0) {
+            return Health.up()
+                .withDetail("domains", warmedDomains)
+                .withDetail("warmup", "plazo cumplido sin completar la precarga")
+                .build();
+        }
+        return Health.outOfService().withDetail("warmup", "en curso").build();
+    }
+}
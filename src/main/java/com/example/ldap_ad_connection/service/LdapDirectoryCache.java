@@ -0,0 +1,113 @@
+package com.example.ldap_ad_connection.service;
+
+import com.example.ldap_ad_connection.model.ADUser;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import javax.naming.NamingException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Cachés de entradas de usuario, grupos por usuario y miembros por grupo.
+ *
+ * Las entradas se recargan por adelantado (refreshAfterWrite): una lectura sobre una entrada
+ * vieja devuelve el valor actual y dispara la recarga en el executor, así los lectores solo
+ * esperan a AD cuando la clave no está en caché o ya expiró.
+ */
+public class LdapDirectoryCache {
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load(String key) throws NamingException;
+    }
+
+    private final LoadingCache<String, ADUser> users;
+    private final LoadingCache<String, List<String>> userGroups;
+    private final LoadingCache<String, List<ADUser>> groupMembers;
+    private final Map<String, Set<String>> seededMembers = new ConcurrentHashMap<>();
+
+    public LdapDirectoryCache(long maximumSize, Duration refreshAfter, Duration expireAfter, Executor executor,
+                              Loader<ADUser> userLoader,
+                              Loader<List<String>> userGroupsLoader,
+                              Loader<List<ADUser>> groupMembersLoader) {
+        this.users = build(maximumSize, refreshAfter, expireAfter, executor, userLoader);
+        this.userGroups = build(maximumSize, refreshAfter, expireAfter, executor, userGroupsLoader);
+        this.groupMembers = build(maximumSize, refreshAfter, expireAfter, executor, groupMembersLoader);
+    }
+
+    private static <V> LoadingCache<String, V> build(long maximumSize, Duration refreshAfter, Duration expireAfter,
+                                                     Executor executor, Loader<V> loader) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .executor(executor)
+                .build(loader::load);
+    }
+
+    public ADUser getUser(String username) throws NamingException {
+        return get(users, userKey(username));
+    }
+
+    public List<String> getUserGroups(String username) throws NamingException {
+        return get(userGroups, userKey(username));
+    }
+
+    public List<ADUser> getGroupMembers(String groupDn) throws NamingException {
+        return get(groupMembers, groupDn);
+    }
+
+    /**
+     * Reemplaza los miembros de un grupo junto con la entrada y los grupos de cada miembro,
+     * a partir de una única búsqueda de miembros. Los usuarios que estaban en la carga anterior
+     * y ya no son miembros se invalidan, para que la verificación de grupo no use su memberOf viejo.
+     */
+    public void seedGroup(String groupDn, List<ADUser> members) {
+        Set<String> keys = new HashSet<>();
+        groupMembers.put(groupDn, members);
+        for (ADUser member : members) {
+            // Se inicia sesión con sAMAccountName o con UPN; ambas claves apuntan a la misma entrada
+            for (String name : new String[]{member.getSamAccountName(), member.getUserPrincipalName()}) {
+                if (name == null) {
+                    continue;
+                }
+                String key = userKey(name);
+                keys.add(key);
+                users.put(key, member);
+                if (member.getGroups() != null) {
+                    userGroups.put(key, member.getGroups());
+                }
+            }
+        }
+
+        Set<String> previous = seededMembers.put(groupDn, keys);
+        if (previous != null) {
+            previous.removeAll(keys);
+            users.invalidateAll(previous);
+            userGroups.invalidateAll(previous);
+        }
+    }
+
+    private static String userKey(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static <V> V get(LoadingCache<String, V> cache, String key) throws NamingException {
+        try {
+            return cache.get(key);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NamingException) {
+                throw (NamingException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
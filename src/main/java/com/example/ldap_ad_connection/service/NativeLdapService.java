@@ -1,14 +1,15 @@
 package com.example.ldap_ad_connection.service;
 
-import com.example.ldap_ad_connection.config.LdapConfig;
+import com.example.ldap_ad_connection.config.LdapDomain;
+import com.example.ldap_ad_connection.config.LdapDomainRegistry;
+import com.example.ldap_ad_connection.ldap.LdapFilterTemplate;
 import com.example.ldap_ad_connection.model.ADUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.ldap.core.AttributesMapper;
-import org.springframework.ldap.core.LdapTemplate;
-import org.springframework.ldap.filter.AndFilter;
-import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.query.LdapQuery;
 import org.springframework.ldap.query.LdapQueryBuilder;
 import org.springframework.ldap.query.SearchScope;
@@ -17,48 +18,94 @@ import org.springframework.stereotype.Service;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Slf4j
 @Service
 public class NativeLdapService {
 
     @Autowired
-    private LdapConfig ldapConfig;
+    private LdapDomainRegistry domainRegistry;
 
-    @Autowired
-    private LdapTemplate ldapTemplate;
+    @Value("${app.ldap.search.max-value-length:64}")
+    private int maxValueLength;
+
+    @Value("${app.ldap.search.min-term-length:3}")
+    private int minTermLength;
+
+    @Value("${app.ldap.search.max-upn-length:256}")
+    private int maxUpnLength;
+
+    @Value("${app.ldap.search.max-dn-length:1024}")
+    private int maxDnLength;
+
+    @Value("${app.ldap.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
 
-    @Value("${app.ldap.user-search-base}")
-    private String userSearchBase;
+    @Value("${app.ldap.cache.refresh-after-ms:300000}")
+    private long cacheRefreshAfterMs;
 
-    @Value("${app.ldap.group-search-base}")
-    private String groupSearchBase;
+    @Value("${app.ldap.cache.expire-after-ms:900000}")
+    private long cacheExpireAfterMs;
 
-    @Value("${app.ldap.required-group}")
-    private String requiredGroup;
+    @Value("${app.ldap.cache.refresh-threads:4}")
+    private int cacheRefreshThreads;
 
-    @Value("${app.ldap.domain}")
-    private String domain;
+    private static final String[] USER_ATTRIBUTES = {
+        "cn", "sAMAccountName", "userPrincipalName", "mail",
+        "displayName", "givenName", "sn", "memberOf", "userAccountControl", "distinguishedName"
+    };
+
+    private LdapFilterTemplate userByAccountFilter;
+    private LdapFilterTemplate userByUpnFilter;
+    private LdapFilterTemplate searchUsersFilter;
+    private LdapFilterTemplate usersInGroupFilter;
+
+    private final Map<LdapDomain, DomainPartition> partitions = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() {
+        userByAccountFilter = LdapFilterTemplate.compile(
+            "(&(objectClass=user)(sAMAccountName={0}))", maxValueLength, minTermLength);
+        userByUpnFilter = LdapFilterTemplate.compile(
+            "(&(objectClass=user)(userPrincipalName={0}))", maxUpnLength, minTermLength);
+        searchUsersFilter = LdapFilterTemplate.compile(
+            "(&(objectClass=user)(|(cn=*{0}*)(sAMAccountName=*{0}*)(mail=*{0}*)(displayName=*{0}*)))",
+            maxValueLength, minTermLength);
+        usersInGroupFilter = LdapFilterTemplate.compile(
+            "(&(objectClass=user)(memberOf={0}))", maxDnLength, minTermLength);
+
+        for (LdapDomain domain : domainRegistry.getAll()) {
+            partitions.put(domain, new DomainPartition(domain));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (DomainPartition partition : partitions.values()) {
+            partition.refreshExecutor.shutdownNow();
+        }
+    }
+
+    public Collection<LdapDomain> getDomains() {
+        return domainRegistry.getAll();
+    }
 
     public boolean authenticateUser(String username, String password) {
-        DirContext context = null;
         try {
-            context = ldapConfig.getNativeLdapConnection(username, password);
+            domainRegistry.forUser(username).bind(username, password);
             log.info("Autenticación exitosa para usuario: {}", username);
             return true;
         } catch (NamingException e) {
             log.error("Error en autenticación para usuario {}: {}", username, e.getMessage());
             return false;
-        } finally {
-            if (context != null) {
-                try {
-                    context.close();
-                } catch (NamingException e) {
-                    log.error("Error cerrando conexión LDAP: {}", e.getMessage());
-                }
-            }
         }
     }
 
@@ -80,6 +127,7 @@ public class NativeLdapService {
                     result.setAccountLocked(user.isAccountLocked());
                     
                     // Verificar membresía en grupo requerido
+                    String requiredGroup = domainRegistry.forUser(username).getRequiredGroup();
                     boolean hasRequiredGroup = checkUserGroupMembership(username, requiredGroup);
                     result.setHasRequiredGroup(hasRequiredGroup);
                     result.setUserGroups(getUserGroups(username));
@@ -109,18 +157,33 @@ public class NativeLdapService {
     }
 
     public List<String> getUserGroups(String username) throws NamingException {
+        return partition(domainRegistry.forUser(username)).cache.getUserGroups(username);
+    }
+
+    /**
+     * Filtro de búsqueda del usuario con que se hizo el bind: por UPN si lo trae, si no por sAMAccountName.
+     * El prefijo del UPN no tiene por qué coincidir con el sAMAccountName de la misma cuenta.
+     */
+    private String userFilter(String username) throws NamingException {
+        return username.indexOf('@') >= 0
+            ? userByUpnFilter.format(username)
+            : userByAccountFilter.format(username);
+    }
+
+    private List<String> loadUserGroups(LdapDomain domain, String username) throws NamingException {
         List<String> groups = new ArrayList<>();
+        String filter = userFilter(username);
         DirContext context = null;
+        NamingEnumeration<SearchResult> results = null;
 
         try {
-            context = ldapConfig.getNativeLdapConnection();
+            context = domain.getSearchContext();
 
-            String filter = "(&(objectClass=user)(sAMAccountName=" + username + "))";
             SearchControls controls = new SearchControls();
             controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
             controls.setReturningAttributes(new String[]{"memberOf"});
 
-            NamingEnumeration<SearchResult> results = context.search(userSearchBase, filter, controls);
+            results = context.search(domain.getUserSearchBase(), filter, controls);
 
             if (results.hasMore()) {
                 SearchResult result = results.next();
@@ -134,31 +197,48 @@ public class NativeLdapService {
             }
 
         } finally {
-            if (context != null) {
-                context.close();
-            }
+            closeSearch(results, context);
         }
 
         return groups;
     }
 
     public List<ADUser> searchUsers(String searchTerm) throws NamingException {
+        List<ADUser> users = new ArrayList<>();
+        String filter = searchUsersFilter.format(searchTerm.trim());
+
+        // Un bosque caído no debe dejar sin resultados a los demás; solo se falla si fallan todos
+        NamingException failure = null;
+        int failures = 0;
+        for (LdapDomain domain : domainRegistry.getAll()) {
+            try {
+                users.addAll(searchUsers(domain, filter));
+            } catch (NamingException e) {
+                log.error("Error buscando usuarios en dominio {}: {}", domain.getName(), e.getMessage());
+                failure = e;
+                failures++;
+            }
+        }
+        if (failures == domainRegistry.getAll().size()) {
+            throw failure;
+        }
+
+        return users;
+    }
+
+    private List<ADUser> searchUsers(LdapDomain domain, String filter) throws NamingException {
         List<ADUser> users = new ArrayList<>();
         DirContext context = null;
+        NamingEnumeration<SearchResult> results = null;
 
         try {
-            context = ldapConfig.getNativeLdapConnection();
+            context = domain.getSearchContext();
 
-            String filter = "(&(objectClass=user)(|(cn=*" + searchTerm + "*)(sAMAccountName=*" + searchTerm + "*)(mail=*" + searchTerm + "*)(displayName=*" + searchTerm + "*)))";
-            
             SearchControls controls = new SearchControls();
             controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            controls.setReturningAttributes(new String[]{
-                "cn", "sAMAccountName", "userPrincipalName", "mail", 
-                "displayName", "givenName", "sn", "memberOf", "userAccountControl", "distinguishedName"
-            });
+            controls.setReturningAttributes(USER_ATTRIBUTES);
 
-            NamingEnumeration<SearchResult> results = context.search(userSearchBase, filter, controls);
+            results = context.search(domain.getUserSearchBase(), filter, controls);
 
             while (results.hasMore()) {
                 SearchResult result = results.next();
@@ -167,32 +247,47 @@ public class NativeLdapService {
             }
 
         } finally {
-            if (context != null) {
-                context.close();
-            }
+            closeSearch(results, context);
         }
 
         return users;
     }
 
     public List<ADUser> findAllUsers() {
-        LdapQuery query = LdapQueryBuilder.query()
-                .base(userSearchBase)
-                .searchScope(SearchScope.SUBTREE)
-                .where("objectClass").is("user")
-                .and("objectClass").is("person");
+        List<ADUser> users = new ArrayList<>();
+        RuntimeException failure = null;
+        int failures = 0;
+
+        for (LdapDomain domain : domainRegistry.getAll()) {
+            LdapQuery query = LdapQueryBuilder.query()
+                    .base(domain.getUserSearchBase())
+                    .searchScope(SearchScope.SUBTREE)
+                    .where("objectClass").is("user")
+                    .and("objectClass").is("person");
+
+            try {
+                users.addAll(domain.getLdapTemplate().search(query, new ADUserAttributesMapper()));
+            } catch (RuntimeException e) {
+                log.error("Error listando usuarios en dominio {}: {}", domain.getName(), e.getMessage());
+                failure = e;
+                failures++;
+            }
+        }
+        if (failures == domainRegistry.getAll().size()) {
+            throw failure;
+        }
 
-        return ldapTemplate.search(query, new ADUserAttributesMapper());
+        return users;
     }
 
-    public ADUser findUserByUsername(String username) {
-        AndFilter filter = new AndFilter();
-        filter.and(new EqualsFilter("objectClass", "user"));
-        filter.and(new EqualsFilter("sAMAccountName", username));
+    public ADUser findUserByUsername(String username) throws NamingException {
+        return partition(domainRegistry.forUser(username)).cache.getUser(username);
+    }
 
-        List<ADUser> users = ldapTemplate.search(
-            userSearchBase, 
-            filter.encode(), 
+    private ADUser loadUserByUsername(LdapDomain domain, String username) throws NamingException {
+        List<ADUser> users = domain.getLdapTemplate().search(
+            domain.getUserSearchBase(), 
+            userFilter(username), 
             new ADUserAttributesMapper()
         );
 
@@ -200,22 +295,33 @@ public class NativeLdapService {
     }
 
     public List<ADUser> findUsersInGroup(String groupDn) throws NamingException {
+        return partition(domainRegistry.forDn(groupDn)).cache.getGroupMembers(groupDn);
+    }
+
+    /**
+     * Carga los miembros del grupo directamente desde AD y deja en caché sus entradas y grupos.
+     */
+    public int preloadGroup(String groupDn) throws NamingException {
+        DomainPartition partition = partition(domainRegistry.forDn(groupDn));
+        List<ADUser> members = loadUsersInGroup(partition.domain, groupDn);
+        partition.cache.seedGroup(groupDn, members);
+        return members.size();
+    }
+
+    private List<ADUser> loadUsersInGroup(LdapDomain domain, String groupDn) throws NamingException {
         List<ADUser> users = new ArrayList<>();
+        String filter = usersInGroupFilter.format(groupDn);
         DirContext context = null;
+        NamingEnumeration<SearchResult> results = null;
 
         try {
-            context = ldapConfig.getNativeLdapConnection();
+            context = domain.getSearchContext();
 
-            String filter = "(&(objectClass=user)(memberOf=" + groupDn + "))";
-            
             SearchControls controls = new SearchControls();
             controls.setSearchScope(SearchControls.SUBTREE_SCOPE);
-            controls.setReturningAttributes(new String[]{
-                "cn", "sAMAccountName", "userPrincipalName", "mail", 
-                "displayName", "givenName", "sn", "memberOf", "userAccountControl", "distinguishedName"
-            });
+            controls.setReturningAttributes(USER_ATTRIBUTES);
 
-            NamingEnumeration<SearchResult> results = context.search(userSearchBase, filter, controls);
+            results = context.search(domain.getUserSearchBase(), filter, controls);
 
             while (results.hasMore()) {
                 SearchResult result = results.next();
@@ -223,13 +329,57 @@ public class NativeLdapService {
                 users.add(mapAttributesToUser(attributes, result.getNameInNamespace()));
             }
 
+        } finally {
+            closeSearch(results, context);
+        }
+
+        return users;
+    }
+
+    /**
+     * Cierra la búsqueda antes de devolver el contexto al pool; si no, queda abierta sobre una conexión reutilizada.
+     */
+    private static void closeSearch(NamingEnumeration<SearchResult> results, DirContext context) throws NamingException {
+        try {
+            if (results != null) {
+                results.close();
+            }
         } finally {
             if (context != null) {
                 context.close();
             }
         }
+    }
 
-        return users;
+    private DomainPartition partition(LdapDomain domain) {
+        return partitions.get(domain);
+    }
+
+    /**
+     * Caché y pool de recarga propios de cada dominio, para que un bosque lento no bloquee al otro.
+     */
+    private final class DomainPartition {
+        private final LdapDomain domain;
+        private final ExecutorService refreshExecutor;
+        private final LdapDirectoryCache cache;
+
+        DomainPartition(LdapDomain domain) {
+            this.domain = domain;
+            this.refreshExecutor = Executors.newFixedThreadPool(cacheRefreshThreads, runnable -> {
+                Thread thread = new Thread(runnable, "ldap-cache-refresh-" + domain.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.cache = new LdapDirectoryCache(
+                cacheMaximumSize,
+                Duration.ofMillis(cacheRefreshAfterMs),
+                Duration.ofMillis(cacheExpireAfterMs),
+                refreshExecutor,
+                username -> loadUserByUsername(domain, username),
+                username -> loadUserGroups(domain, username),
+                groupDn -> loadUsersInGroup(domain, groupDn)
+            );
+        }
     }
 
     private ADUser mapAttributesToUser(Attributes attributes, String dn) throws NamingException {
@@ -261,10 +411,22 @@ public class NativeLdapService {
         
         attr = attributes.get("distinguishedName");
         if (attr != null) user.setDistinguishedName((String) attr.get());
+        
+        user.setGroups(mapMemberOf(attributes.get("memberOf")));
 
         return user;
     }
 
+    private static List<String> mapMemberOf(Attribute memberOf) throws NamingException {
+        List<String> groups = new ArrayList<>();
+        if (memberOf != null) {
+            for (int i = 0; i < memberOf.size(); i++) {
+                groups.add((String) memberOf.get(i));
+            }
+        }
+        return groups;
+    }
+
     private static class ADUserAttributesMapper implements AttributesMapper<ADUser> {
         @Override
         public ADUser mapFromAttributes(Attributes attributes) throws NamingException {
@@ -296,6 +458,8 @@ public class NativeLdapService {
             
             attr = attributes.get("distinguishedName");
             if (attr != null) user.setDistinguishedName((String) attr.get());
+            
+            user.setGroups(mapMemberOf(attributes.get("memberOf")));
 
             return user;
         }
@@ -3,7 +3,7 @@ package com.example.ldap_ad_connection;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "app.rate-limit.trusted-proxies=127\\.0\\.0\\.1")
 class LdapAdConnectionApplicationTests {
 
 	@Test
@@ -0,0 +1,80 @@
+package com.example.ldap_ad_connection.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.AuthenticationException;
+import javax.naming.InvalidNameException;
+import javax.naming.ServiceUnavailableException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LdapDomainRegistryTests {
+
+	private final LdapDomainRegistry registry = new LdapDomainRegistry(List.of(
+			domain("alemana.cl", List.of()),
+			domain("otro-bosque.cl", List.of("otro-bosque.cl", "otro.cl"))));
+
+	@AfterEach
+	void destroy() throws Exception {
+		registry.destroy();
+	}
+
+	@Test
+	void routesUsersByUpnSuffix() throws Exception {
+		assertEquals("alemana.cl", registry.forUser("jperez").getName());
+		assertEquals("alemana.cl", registry.forUser("jperez@ALEMANA.cl").getName());
+		assertEquals("otro-bosque.cl", registry.forUser("jperez@otro.cl").getName());
+	}
+
+	@Test
+	void rejectsUnknownUpnSuffix() {
+		assertThrows(AuthenticationException.class, () -> registry.forUser("jperez@desconocido.cl"));
+	}
+
+	@Test
+	void routesDnByDomainBase() throws Exception {
+		assertEquals("otro-bosque.cl",
+				registry.forDn("CN=Grupo,OU=Grupos,DC=otro-bosque,DC=cl").getName());
+		assertEquals("alemana.cl",
+				registry.forDn("CN=HonorariosMedWLS_User, OU=CAS, dc=alemana, dc=cl").getName());
+	}
+
+	@Test
+	void rejectsDnOutsideConfiguredDomains() {
+		assertThrows(InvalidNameException.class, () -> registry.forDn("CN=Grupo,DC=desconocido,DC=cl"));
+		assertThrows(InvalidNameException.class, () -> registry.forDn("CN=Grupo,DC=cl"));
+	}
+
+	@Test
+	void unreachableDomainControllerIsReportedAsNamingException() throws Exception {
+		// Nada escucha en localhost:389 durante las pruebas; el préstamo del pool falla
+		assertThrows(ServiceUnavailableException.class, () -> registry.getDefault().getSearchContext());
+	}
+
+	@Test
+	void rejectsDomainWithoutRequiredSettings() {
+		LdapDomainProperties.Domain incomplete = domain("otro-bosque.cl", List.of());
+		incomplete.setRequiredGroup(null);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> new LdapDomainRegistry(List.of(incomplete)));
+		assertTrue(e.getMessage().contains("required-group"));
+	}
+
+	private static LdapDomainProperties.Domain domain(String name, List<String> suffixes) {
+		LdapDomainProperties.Domain domain = new LdapDomainProperties.Domain();
+		domain.setName(name);
+		domain.setUrls("ldap://localhost:389");
+		domain.setUsername("svc@" + name);
+		domain.setPassword("secret");
+		domain.setUserSearchBase("OU=Usuarios,DC=" + String.join(",DC=", name.split("\\.")));
+		domain.setRequiredGroup("CN=Acceso,OU=Grupos,DC=" + String.join(",DC=", name.split("\\.")));
+		domain.setUpnSuffixes(suffixes);
+		return domain;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.example.ldap_ad_connection.controller;
+
+import com.example.ldap_ad_connection.ratelimit.AuthRateLimiter;
+import com.example.ldap_ad_connection.ratelimit.RateLimitProperties;
+import com.example.ldap_ad_connection.service.NativeLdapService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerRateLimitTests {
+
+	@Test
+	void answers429WithRetryAfterWithoutBinding() throws Exception {
+		RateLimitProperties.Limits limits = new RateLimitProperties.Limits();
+		limits.setUserCapacity(1);
+		limits.setUserPerMinute(1);
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setEndpoints(Map.of("honorarios", limits));
+
+		AuthRateLimiter limiter = new AuthRateLimiter();
+		ReflectionTestUtils.setField(limiter, "properties", properties);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+
+		NativeLdapService ldapService = mock(NativeLdapService.class);
+		when(ldapService.authenticateUserWithDetails(anyString(), anyString()))
+				.thenReturn(new NativeLdapService.AuthResult());
+
+		AuthController controller = new AuthController();
+		ReflectionTestUtils.setField(controller, "ldapService", ldapService);
+		ReflectionTestUtils.setField(controller, "rateLimiter", limiter);
+		MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		mvc.perform(post("/api/auth/honorarios").param("username", "jperez").param("password", "x"))
+				.andExpect(status().isUnauthorized());
+		mvc.perform(post("/api/auth/honorarios").param("username", "jperez").param("password", "x"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "60"));
+
+		verify(ldapService, times(1)).authenticateUserWithDetails(anyString(), anyString());
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.example.ldap_ad_connection.ldap;
+
+import org.junit.jupiter.api.Test;
+
+import javax.naming.directory.InvalidSearchFilterException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LdapFilterTemplateTests {
+
+	private final LdapFilterTemplate byAccount =
+			LdapFilterTemplate.compile("(&(objectClass=user)(sAMAccountName={0}))", 64, 3);
+
+	private final LdapFilterTemplate bySubstring =
+			LdapFilterTemplate.compile("(&(objectClass=user)(|(cn=*{0}*)(mail=*{0}*)))", 64, 3);
+
+	@Test
+	void fillsPlaceholders() throws Exception {
+		assertEquals("(&(objectClass=user)(sAMAccountName=jperez))", byAccount.format("jperez"));
+		assertEquals("(&(objectClass=user)(|(cn=*perez*)(mail=*perez*)))", bySubstring.format("perez"));
+	}
+
+	@Test
+	void escapesFilterMetacharacters() throws Exception {
+		assertEquals("(&(objectClass=user)(sAMAccountName=a\\29\\28cn=b\\5c))", byAccount.format("a)(cn=b\\"));
+	}
+
+	@Test
+	void rejectsWildcards() {
+		assertThrows(InvalidSearchFilterException.class, () -> byAccount.format("*"));
+		assertThrows(InvalidSearchFilterException.class, () -> bySubstring.format("ab*cd"));
+	}
+
+	@Test
+	void rejectsShortSubstringTerms() {
+		assertThrows(InvalidSearchFilterException.class, () -> bySubstring.format("ab"));
+	}
+
+	@Test
+	void rejectsOversizedValues() {
+		assertThrows(InvalidSearchFilterException.class, () -> byAccount.format("x".repeat(65)));
+	}
+
+}
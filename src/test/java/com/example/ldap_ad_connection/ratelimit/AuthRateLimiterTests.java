@@ -0,0 +1,86 @@
+package com.example.ldap_ad_connection.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthRateLimiterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void rejectsUserOverLimitWithRetryAfter() {
+		AuthRateLimiter limiter = limiter(limits(100, 1, 10));
+
+		try (AuthRateLimiter.Admission first = limiter.acquire("authenticate", "10.0.0.1", "jperez")) {
+			assertTrue(first.isAllowed());
+		}
+		try (AuthRateLimiter.Admission second = limiter.acquire("authenticate", "10.0.0.2", "JPerez")) {
+			assertFalse(second.isAllowed());
+			assertEquals(60, second.getRetryAfterSeconds());
+		}
+		assertEquals(1.0, meterRegistry.get("ldap.auth.rejected")
+				.tag("endpoint", "authenticate").tag("reason", "user").counter().count());
+	}
+
+	@Test
+	void capsConcurrentRequestsPerEndpoint() {
+		AuthRateLimiter limiter = limiter(limits(100, 100, 1));
+
+		try (AuthRateLimiter.Admission held = limiter.acquire("authenticate", "10.0.0.1", "a")) {
+			assertTrue(held.isAllowed());
+
+			AuthRateLimiter.Admission rejected = limiter.acquire("authenticate", "10.0.0.2", "b");
+			assertFalse(rejected.isAllowed());
+			assertEquals(1, rejected.getRetryAfterSeconds());
+
+			// Otro endpoint tiene su propio límite
+			try (AuthRateLimiter.Admission other = limiter.acquire("honorarios", "10.0.0.2", "b")) {
+				assertTrue(other.isAllowed());
+			}
+		}
+	}
+
+	@Test
+	void closeReleasesPermit() {
+		AuthRateLimiter limiter = limiter(limits(100, 100, 1));
+
+		AuthRateLimiter.Admission admission = limiter.acquire("authenticate", "10.0.0.1", "a");
+		assertTrue(admission.isAllowed());
+		admission.close();
+		admission.close();
+
+		try (AuthRateLimiter.Admission next = limiter.acquire("authenticate", "10.0.0.1", "a")) {
+			assertTrue(next.isAllowed());
+		}
+		try (AuthRateLimiter.Admission next = limiter.acquire("authenticate", "10.0.0.1", "a")) {
+			assertTrue(next.isAllowed());
+		}
+	}
+
+	private AuthRateLimiter limiter(RateLimitProperties.Limits limits) {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setEndpoints(Map.of("authenticate", limits, "honorarios", limits));
+
+		AuthRateLimiter limiter = new AuthRateLimiter();
+		ReflectionTestUtils.setField(limiter, "properties", properties);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+		return limiter;
+	}
+
+	static RateLimitProperties.Limits limits(int ipCapacity, int userCapacity, int maxConcurrent) {
+		RateLimitProperties.Limits limits = new RateLimitProperties.Limits();
+		limits.setIpCapacity(ipCapacity);
+		limits.setUserCapacity(userCapacity);
+		limits.setUserPerMinute(1);
+		limits.setMaxConcurrent(maxConcurrent);
+		return limits;
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.example.ldap_ad_connection.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	@Test
+	void allowsBurstThenRejects() {
+		long now = 0;
+		TokenBucket bucket = new TokenBucket(3, 60, now);
+
+		assertEquals(0, bucket.tryConsume(now));
+		assertEquals(0, bucket.tryConsume(now));
+		assertEquals(0, bucket.tryConsume(now));
+		assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.tryConsume(now));
+	}
+
+	@Test
+	void refillsOverTime() {
+		long now = 0;
+		TokenBucket bucket = new TokenBucket(1, 60, now);
+
+		assertEquals(0, bucket.tryConsume(now));
+		assertTrue(bucket.tryConsume(now) > 0);
+		assertEquals(0, bucket.tryConsume(now + TimeUnit.SECONDS.toNanos(1)));
+	}
+
+	@Test
+	void becomesIdleOnceFull() {
+		TokenBucket bucket = new TokenBucket(2, 60, 0);
+		bucket.tryConsume(0);
+
+		assertFalse(bucket.isIdle(0));
+		assertTrue(bucket.isIdle(TimeUnit.SECONDS.toNanos(1)));
+	}
+
+}
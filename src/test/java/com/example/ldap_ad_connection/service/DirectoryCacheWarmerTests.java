@@ -0,0 +1,98 @@
+package com.example.ldap_ad_connection.service;
+
+import com.example.ldap_ad_connection.config.LdapDomain;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.naming.NamingException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DirectoryCacheWarmerTests {
+
+	private static final String GROUP = "CN=Honorarios,OU=Grupos,DC=alemana,DC=cl";
+	private static final String OTHER_GROUP = "CN=Acceso,OU=Grupos,DC=otro-bosque,DC=cl";
+
+	private final NativeLdapService ldapService = mock(NativeLdapService.class);
+
+	@Test
+	void outOfServiceUntilPreloadSucceeds() throws Exception {
+		DirectoryCacheWarmer warmer = warmer(60_000);
+		when(ldapService.preloadGroup(GROUP)).thenThrow(new NamingException("AD no disponible"));
+
+		assertEquals(Status.OUT_OF_SERVICE, warmer.health().getStatus());
+		warmer.refresh();
+		assertEquals(Status.OUT_OF_SERVICE, warmer.health().getStatus());
+
+		doReturn(3).when(ldapService).preloadGroup(GROUP);
+		warmer.refresh();
+		assertEquals(Status.UP, warmer.health().getStatus());
+	}
+
+	@Test
+	void upOnceDeadlinePasses() throws Exception {
+		DirectoryCacheWarmer warmer = warmer(0);
+		when(ldapService.preloadGroup(GROUP)).thenThrow(new NamingException("AD no disponible"));
+
+		warmer.warmUp();
+
+		assertEquals(Status.UP, warmer.health().getStatus());
+	}
+
+	@Test
+	void slowDomainDoesNotDelayOthers() throws Exception {
+		List<LdapDomain> domains = List.of(domain("otro-bosque.cl", OTHER_GROUP), domain("alemana.cl", GROUP));
+		when(ldapService.getDomains()).thenReturn(domains);
+		CountDownLatch release = new CountDownLatch(1);
+		when(ldapService.preloadGroup(OTHER_GROUP)).thenAnswer(invocation -> {
+			release.await();
+			return 1;
+		});
+		when(ldapService.preloadGroup(GROUP)).thenReturn(3);
+
+		DirectoryCacheWarmer warmer = new DirectoryCacheWarmer();
+		ReflectionTestUtils.setField(warmer, "ldapService", ldapService);
+		try {
+			// otro-bosque.cl queda bloqueado y va primero; alemana.cl igual debe precargarse
+			warmer.refresh();
+			verify(ldapService, timeout(5000)).preloadGroup(GROUP);
+			verify(ldapService).preloadGroup(OTHER_GROUP);
+		} finally {
+			release.countDown();
+			warmer.shutdown();
+		}
+	}
+
+	private DirectoryCacheWarmer warmer(long deadlineMs) {
+		List<LdapDomain> domains = List.of(domain("alemana.cl", GROUP));
+		when(ldapService.getDomains()).thenReturn(domains);
+
+		// Precarga en el hilo de la prueba para poder afirmar el estado tras cada ciclo
+		DirectoryCacheWarmer warmer = new DirectoryCacheWarmer() {
+			@Override
+			Executor executorFor(LdapDomain domain) {
+				return Runnable::run;
+			}
+		};
+		ReflectionTestUtils.setField(warmer, "ldapService", ldapService);
+		ReflectionTestUtils.setField(warmer, "warmupDeadlineMs", deadlineMs);
+		return warmer;
+	}
+
+	private static LdapDomain domain(String name, String requiredGroup) {
+		LdapDomain domain = mock(LdapDomain.class);
+		when(domain.getName()).thenReturn(name);
+		when(domain.getRequiredGroup()).thenReturn(requiredGroup);
+		return domain;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.ldap_ad_connection.service;
+
+import com.example.ldap_ad_connection.model.ADUser;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.NamingException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LdapDirectoryCacheTests {
+
+	private static final String GROUP = "CN=Honorarios,OU=Grupos,DC=alemana,DC=cl";
+
+	private final AtomicInteger userGroupLoads = new AtomicInteger();
+
+	@Test
+	void rethrowsLoaderNamingException() {
+		NamingException failure = new NamingException("AD no disponible");
+		LdapDirectoryCache cache = cache(key -> { throw failure; });
+
+		NamingException thrown = assertThrows(NamingException.class, () -> cache.getUserGroups("jperez"));
+		assertSame(failure, thrown);
+	}
+
+	@Test
+	void seedGroupFillsUsersAndGroupsWithoutLoading() throws Exception {
+		LdapDirectoryCache cache = cache(key -> List.of("CN=Cargado"));
+
+		cache.seedGroup(GROUP, List.of(member("JPerez", GROUP), member("mgomez", GROUP)));
+
+		assertEquals(List.of(GROUP), cache.getUserGroups("jperez"));
+		assertEquals("mgomez", cache.getUser("MGOMEZ").getSamAccountName());
+		assertEquals(2, cache.getGroupMembers(GROUP).size());
+		assertEquals(0, userGroupLoads.get());
+	}
+
+	@Test
+	void seedGroupKeysMembersByUpnToo() throws Exception {
+		LdapDirectoryCache cache = cache(key -> List.of("CN=Cargado"));
+		ADUser member = member("jperez", GROUP);
+		member.setUserPrincipalName("juan.perez@alemana.cl");
+
+		cache.seedGroup(GROUP, List.of(member));
+
+		assertEquals(List.of(GROUP), cache.getUserGroups("Juan.Perez@alemana.cl"));
+		assertEquals(0, userGroupLoads.get());
+	}
+
+	@Test
+	void reseedInvalidatesMembersWhoLeft() throws Exception {
+		LdapDirectoryCache cache = cache(key -> List.of("CN=Otro"));
+
+		cache.seedGroup(GROUP, List.of(member("jperez", GROUP), member("mgomez", GROUP)));
+		cache.seedGroup(GROUP, List.of(member("mgomez", GROUP)));
+
+		assertEquals(List.of(GROUP), cache.getUserGroups("mgomez"));
+		assertEquals(List.of("CN=Otro"), cache.getUserGroups("jperez"));
+		assertEquals(1, userGroupLoads.get());
+	}
+
+	private LdapDirectoryCache cache(LdapDirectoryCache.Loader<List<String>> userGroupsLoader) {
+		return new LdapDirectoryCache(100, Duration.ofMinutes(5), Duration.ofMinutes(15), Runnable::run,
+				key -> null,
+				key -> {
+					userGroupLoads.incrementAndGet();
+					return userGroupsLoader.load(key);
+				},
+				key -> List.of());
+	}
+
+	private static ADUser member(String samAccountName, String... groups) {
+		ADUser user = new ADUser();
+		user.setSamAccountName(samAccountName);
+		user.setGroups(List.of(groups));
+		return user;
+	}
+
+}